@@ -0,0 +1,333 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the best results per puzzle and per rule set and difficulty, optionally backed by an
+// append-only file. Posting never blocks on another game: the in-memory indexes are updated with
+// compare-and-set and file writes are batched by whichever poster currently holds the write lock.
+public class Leaderboard implements Closeable {
+    public enum Difficulty { EASY, MEDIUM, HARD, EXPERT }
+
+    public static final int DEFAULT_TOP_K = 10;
+
+    // variant(4) + puzzleKey(8) + difficulty(1) + seconds(4) + score(4) + recordedAt(8)
+    private static final int RECORD_SIZE = 29;
+
+    // Faster first, then higher score, then earlier
+    private static final Comparator<Result> BY_TIME = Comparator
+            .comparingInt(Result::getSeconds)
+            .thenComparing(Comparator.comparingInt(Result::getScore).reversed())
+            .thenComparingLong(Result::getRecordedAt);
+
+    private final int topK;
+    private final ConcurrentHashMap<Long, TopK> byPuzzle = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, TopK> byDifficulty = new ConcurrentHashMap<>();
+    private final LongAdder resultCount = new LongAdder();
+    private final LongAdder corruptCount = new LongAdder();
+
+    private final FileChannel channel;
+    private final ConcurrentLinkedQueue<Result> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer writeBuffer; // Only touched while holding writeLock
+
+    // In-memory only; nothing survives the process
+    public Leaderboard() {
+        this(DEFAULT_TOP_K, null);
+    }
+
+    private Leaderboard(int topK, FileChannel channel) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+        this.channel = channel;
+        this.writeBuffer = ByteBuffer.allocate(RECORD_SIZE * 256);
+    }
+
+    public static Leaderboard open(Path file) throws IOException {
+        return open(file, DEFAULT_TOP_K);
+    }
+
+    // Replays every record already in the file, then appends new results to it. The file is
+    // opened in append mode, so several leaderboards (other windows or processes) can share it:
+    // every batch lands at the current end of the file and never overwrites another writer's records.
+    public static Leaderboard open(Path file, int topK) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        Leaderboard leaderboard;
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            leaderboard = new Leaderboard(topK, channel);
+            long size = reader.size();
+            long complete = size - size % RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            long position = 0;
+            boolean endOfData = false;
+            while (position < complete && !endOfData) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+                while (buffer.hasRemaining()) {
+                    int read = reader.read(buffer, position);
+                    if (read < 0) {
+                        endOfData = true; // The file shrank while replaying; keep the whole records read so far
+                        break;
+                    }
+                    position += read;
+                }
+                buffer.flip();
+                buffer.limit(buffer.limit() - buffer.limit() % RECORD_SIZE);
+                while (buffer.hasRemaining()) {
+                    Result result = readRecord(buffer);
+                    if (result != null) {
+                        leaderboard.index(result);
+                    } else {
+                        leaderboard.corruptCount.increment();
+                    }
+                }
+            }
+            // A torn record can only be left by a crash mid-write. Drop it so appends stay
+            // aligned, but only if nobody has appended since we looked.
+            if (size % RECORD_SIZE != 0 && channel.size() == size) {
+                channel.truncate(complete);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return leaderboard;
+    }
+
+    // Stable 64-bit key for a puzzle's givens under a rule set (FNV-1a over the variant and the
+    // 81 cells), so the same clues played with different rules are ranked separately
+    public static long puzzleKey(int variant, int[][] puzzle) {
+        long hash = 0xcbf29ce484222325L;
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (variant >>> shift) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        for (int[] row : puzzle) {
+            for (int num : row) {
+                hash ^= num;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    // The result is ranked at once. Writing it to the file is best-effort: if another poster is
+    // already writing, that poster carries this result along and this call returns without
+    // waiting, so a failed write is only thrown to the thread that attempted it. The bytes stay
+    // queued and are retried by the next post. Call sync() to wait for the file and see any error.
+    public Result post(int variant, long puzzleKey, Difficulty difficulty, int seconds, int score) throws IOException {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("seconds must not be negative");
+        }
+        Result result = new Result(variant, puzzleKey, difficulty, seconds, score, System.currentTimeMillis());
+        index(result);
+        if (channel != null) {
+            pending.add(result);
+            drain();
+        }
+        return result;
+    }
+
+    // Best results for the puzzle, fastest first; at most topK entries
+    public Result[] bestForPuzzle(long puzzleKey) {
+        TopK best = byPuzzle.get(puzzleKey);
+        return best == null ? new Result[0] : best.snapshot();
+    }
+
+    public Result[] bestForDifficulty(int variant, Difficulty difficulty) {
+        TopK best = byDifficulty.get(difficultyKey(variant, difficulty));
+        return best == null ? new Result[0] : best.snapshot();
+    }
+
+    public long getResultCount() {
+        return resultCount.sum();
+    }
+
+    // Records skipped while replaying the file because they could not be decoded
+    public long getCorruptRecordCount() {
+        return corruptCount.sum();
+    }
+
+    // Waits until every result posted so far has been handed to the file, throwing if it could not be
+    public void sync() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            writePending();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            writePending();
+            channel.force(false);
+        } finally {
+            channel.close();
+            writeLock.unlock();
+        }
+    }
+
+    private void index(Result result) {
+        resultCount.increment();
+        byPuzzle.computeIfAbsent(result.getPuzzleKey(), k -> new TopK()).offer(result);
+        byDifficulty.computeIfAbsent(difficultyKey(result.getVariant(), result.getDifficulty()), k -> new TopK()).offer(result);
+    }
+
+    private static long difficultyKey(int variant, Difficulty difficulty) {
+        return ((long) variant << 8) | difficulty.ordinal();
+    }
+
+    // Whoever gets the lock writes everyone's pending results; the others return immediately.
+    // Re-checking after unlock covers results queued while the previous holder was finishing.
+    private void drain() throws IOException {
+        while (!pending.isEmpty() && writeLock.tryLock()) {
+            try {
+                writePending();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (!channel.isOpen()) {
+            pending.clear();
+            return;
+        }
+        while (!pending.isEmpty()) {
+            if (writeBuffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            writeRecord(writeBuffer, pending.poll());
+        }
+        flush();
+    }
+
+    // Bytes that fail to go out stay at the front of the buffer and are retried, in order, by the
+    // next flush, so a failed write neither loses results nor leaves later records misaligned
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } finally {
+            writeBuffer.compact();
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, Result result) {
+        buffer.putInt(result.getVariant());
+        buffer.putLong(result.getPuzzleKey());
+        buffer.put((byte) result.getDifficulty().ordinal());
+        buffer.putInt(result.getSeconds());
+        buffer.putInt(result.getScore());
+        buffer.putLong(result.getRecordedAt());
+    }
+
+    // Returns null for a record that cannot be decoded, so one bad record costs only itself
+    private static Result readRecord(ByteBuffer buffer) {
+        int variant = buffer.getInt();
+        long puzzleKey = buffer.getLong();
+        int difficulty = buffer.get();
+        int seconds = buffer.getInt();
+        int score = buffer.getInt();
+        long recordedAt = buffer.getLong();
+        if (difficulty < 0 || difficulty >= Difficulty.values().length || seconds < 0) {
+            return null;
+        }
+        return new Result(variant, puzzleKey, Difficulty.values()[difficulty], seconds, score, recordedAt);
+    }
+
+    // Sorted, immutable array of the best topK results, replaced with compare-and-set
+    private class TopK {
+        private final AtomicReference<Result[]> best = new AtomicReference<>(new Result[0]);
+
+        void offer(Result result) {
+            while (true) {
+                Result[] current = best.get();
+                if (current.length == topK && BY_TIME.compare(result, current[topK - 1]) >= 0) {
+                    return; // Not good enough; the common case once the table has filled up
+                }
+                int at = Arrays.binarySearch(current, result, BY_TIME);
+                if (at < 0) {
+                    at = -at - 1;
+                }
+                int length = Math.min(current.length + 1, topK);
+                Result[] updated = new Result[length];
+                System.arraycopy(current, 0, updated, 0, at);
+                updated[at] = result;
+                System.arraycopy(current, at, updated, at + 1, length - at - 1);
+                if (best.compareAndSet(current, updated)) {
+                    return;
+                }
+            }
+        }
+
+        Result[] snapshot() {
+            return best.get().clone();
+        }
+    }
+
+    public static final class Result {
+        private final int variant;
+        private final long puzzleKey;
+        private final Difficulty difficulty;
+        private final int seconds;
+        private final int score;
+        private final long recordedAt;
+
+        Result(int variant, long puzzleKey, Difficulty difficulty, int seconds, int score, long recordedAt) {
+            this.variant = variant;
+            this.puzzleKey = puzzleKey;
+            this.difficulty = difficulty;
+            this.seconds = seconds;
+            this.score = score;
+            this.recordedAt = recordedAt;
+        }
+
+        public int getVariant() {
+            return variant;
+        }
+
+        public long getPuzzleKey() {
+            return puzzleKey;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public long getRecordedAt() {
+            return recordedAt;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Run with: java LeaderboardTest (exits with an AssertionError on the first failure)
+public class LeaderboardTest {
+    private static final int RECORD_SIZE = 29;
+    private static final int DIFFICULTY_OFFSET = 12; // After the variant and the puzzle key
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("leaderboard-test");
+        try {
+            concurrentPostsSurviveReopen(dir.resolve("concurrent"));
+            twoInstancesShareOneFile(dir.resolve("shared"));
+            tornTailIsDropped(dir.resolve("torn"));
+            corruptRecordIsSkipped(dir.resolve("corrupt"));
+            variantsAreRankedSeparately();
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+        System.out.println("LeaderboardTest passed");
+    }
+
+    private static void concurrentPostsSurviveReopen(Path file) throws Exception {
+        int threads = 8;
+        int postsPerThread = 2000;
+        Leaderboard leaderboard = Leaderboard.open(file);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int i = 0; i < postsPerThread; i++) {
+                        leaderboard.post(0, random.nextInt(50), Leaderboard.Difficulty.values()[random.nextInt(4)],
+                                random.nextInt(5000), random.nextInt(800));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        check(failures.isEmpty(), "no poster failed: " + failures);
+        leaderboard.close();
+
+        long expected = (long) threads * postsPerThread;
+        check(leaderboard.getResultCount() == expected, "every post was counted");
+        check(Files.size(file) == expected * RECORD_SIZE, "every post was written");
+
+        Leaderboard reopened = Leaderboard.open(file);
+        check(reopened.getResultCount() == expected, "replay sees every record");
+        check(reopened.getCorruptRecordCount() == 0, "no record is corrupt");
+        for (Leaderboard.Difficulty difficulty : Leaderboard.Difficulty.values()) {
+            checkSame(leaderboard.bestForDifficulty(0, difficulty), reopened.bestForDifficulty(0, difficulty));
+        }
+        for (long key = 0; key < 50; key++) {
+            checkSame(leaderboard.bestForPuzzle(key), reopened.bestForPuzzle(key));
+            check(reopened.bestForPuzzle(key).length == Leaderboard.DEFAULT_TOP_K, "top-K is full for every puzzle");
+        }
+        reopened.close();
+    }
+
+    private static void twoInstancesShareOneFile(Path file) throws IOException {
+        Leaderboard first = Leaderboard.open(file);
+        Leaderboard second = Leaderboard.open(file);
+        first.post(0, 1, Leaderboard.Difficulty.EASY, 10, 5);
+        second.post(0, 2, Leaderboard.Difficulty.HARD, 20, 7);
+        first.post(0, 1, Leaderboard.Difficulty.EASY, 9, 5);
+        first.close();
+        second.close();
+
+        Leaderboard reopened = Leaderboard.open(file);
+        check(reopened.getResultCount() == 3, "neither instance overwrote the other");
+        check(reopened.bestForPuzzle(1)[0].getSeconds() == 9, "best time comes first");
+        reopened.close();
+    }
+
+    private static void tornTailIsDropped(Path file) throws IOException {
+        Leaderboard leaderboard = Leaderboard.open(file);
+        leaderboard.post(0, 1, Leaderboard.Difficulty.EASY, 10, 5);
+        leaderboard.close();
+        Files.write(file, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        leaderboard = Leaderboard.open(file);
+        check(leaderboard.getResultCount() == 1, "torn record is not replayed");
+        check(Files.size(file) == RECORD_SIZE, "torn record is truncated");
+        leaderboard.post(0, 1, Leaderboard.Difficulty.EASY, 8, 5);
+        leaderboard.close();
+
+        leaderboard = Leaderboard.open(file);
+        check(leaderboard.getResultCount() == 2, "appends after truncation stay aligned");
+        check(leaderboard.bestForPuzzle(1)[0].getSeconds() == 8, "appended record reads back intact");
+        leaderboard.close();
+    }
+
+    private static void corruptRecordIsSkipped(Path file) throws IOException {
+        Leaderboard leaderboard = Leaderboard.open(file);
+        for (int i = 0; i < 3; i++) {
+            leaderboard.post(0, 1, Leaderboard.Difficulty.MEDIUM, 10 + i, 5);
+        }
+        leaderboard.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{99}), RECORD_SIZE + DIFFICULTY_OFFSET);
+        }
+
+        leaderboard = Leaderboard.open(file);
+        check(leaderboard.getCorruptRecordCount() == 1, "bad record is counted");
+        check(leaderboard.getResultCount() == 2, "good records around it are kept");
+        leaderboard.post(0, 1, Leaderboard.Difficulty.MEDIUM, 5, 5);
+        leaderboard.close();
+
+        leaderboard = Leaderboard.open(file);
+        check(leaderboard.getResultCount() == 3, "results are still saved after a bad record");
+        leaderboard.close();
+    }
+
+    private static void variantsAreRankedSeparately() throws IOException {
+        int[][] puzzle = new int[SudokuRules.N][SudokuRules.N];
+        puzzle[0][0] = 5;
+        int classic = SudokuRules.classic().getVariantKey();
+        int diagonal = SudokuRules.diagonal().getVariantKey();
+        check(classic == 0 && diagonal != 0, "only classic rules have variant 0");
+        check(diagonal == SudokuRules.diagonal().getVariantKey(), "variant key is stable");
+        check(Leaderboard.puzzleKey(classic, puzzle) != Leaderboard.puzzleKey(diagonal, puzzle),
+                "same clues under different rules get different keys");
+
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.post(classic, Leaderboard.puzzleKey(classic, puzzle), Leaderboard.Difficulty.HARD, 100, 5);
+        leaderboard.post(diagonal, Leaderboard.puzzleKey(diagonal, puzzle), Leaderboard.Difficulty.HARD, 50, 5);
+        check(leaderboard.bestForDifficulty(classic, Leaderboard.Difficulty.HARD)[0].getSeconds() == 100,
+                "diagonal time does not enter the classic table");
+        check(leaderboard.bestForDifficulty(diagonal, Leaderboard.Difficulty.HARD).length == 1,
+                "diagonal table holds only the diagonal result");
+    }
+
+    private static void checkSame(Leaderboard.Result[] expected, Leaderboard.Result[] actual) {
+        check(expected.length == actual.length, "top-K has the same size after reopening");
+        for (int i = 0; i < expected.length; i++) {
+            check(expected[i].getPuzzleKey() == actual[i].getPuzzleKey()
+                    && expected[i].getSeconds() == actual[i].getSeconds()
+                    && expected[i].getScore() == actual[i].getScore()
+                    && expected[i].getRecordedAt() == actual[i].getRecordedAt(),
+                    "top-K entry " + i + " is the same after reopening");
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.Random;
+
+// Digs clues out of a solved grid until every remaining clue is needed for a unique solution
+public class MinimalPuzzleGenerator {
+    private static final int N = SudokuRules.N;
+    private static final int CELLS = SudokuRules.CELLS;
+
+    private final SudokuRules rules;
+    private final Random random;
+
+    public MinimalPuzzleGenerator(SudokuRules rules, Random random) {
+        if (rules.getCageCount() > 0) {
+            throw new IllegalArgumentException("Killer cages are not supported by the minimal generator");
+        }
+        this.rules = rules;
+        this.random = random;
+    }
+
+    // With symmetric set, clues are removed in pairs mirrored through the centre cell
+    public int[][] generate(int[][] solution, boolean symmetric) {
+        if (!rules.isBoardCorrect(solution)) {
+            throw new IllegalArgumentException("Solution does not satisfy the rules");
+        }
+
+        // Search state shared by every removal attempt of this call
+        SudokuRules.Search search = rules.newSearch();
+        for (int cell = 0; cell < CELLS; cell++) {
+            int num = solution[cell / N][cell % N];
+            if (num == 0) {
+                throw new IllegalArgumentException("Solution must be a completed grid");
+            }
+            search.place(cell, num);
+        }
+
+        int[] order = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = i;
+        }
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        int[] removed = new int[2];
+        for (int cell : order) {
+            if (search.get(cell) == 0) {
+                continue;
+            }
+            int count = 0;
+            removed[count++] = cell;
+            int mirror = CELLS - 1 - cell;
+            if (symmetric && mirror != cell) {
+                removed[count++] = mirror;
+            }
+
+            for (int i = 0; i < count; i++) {
+                search.clear(removed[i]);
+            }
+            if (!isStillUnique(search, removed, count, solution)) {
+                for (int i = 0; i < count; i++) {
+                    search.place(removed[i], solution[removed[i] / N][removed[i] % N]);
+                }
+            }
+        }
+
+        int[][] puzzle = new int[N][N];
+        for (int cell = 0; cell < CELLS; cell++) {
+            puzzle[cell / N][cell % N] = search.get(cell);
+        }
+        return puzzle;
+    }
+
+    // The puzzle was unique before this step, so any second solution has to differ from the
+    // known one in one of the cells just removed. Try each of them in turn with its original
+    // digit forbidden and the earlier ones pinned back to theirs.
+    private boolean isStillUnique(SudokuRules.Search search, int[] removed, int count, int[][] solution) {
+        for (int i = 0; i < count; i++) {
+            int cell = removed[i];
+            int original = solution[cell / N][cell % N];
+            if (search.hasSolutionWithout(cell, original)) {
+                for (int j = 0; j < i; j++) {
+                    search.clear(removed[j]);
+                }
+                return false;
+            }
+            search.place(cell, original);
+        }
+        for (int i = 0; i < count; i++) {
+            search.clear(removed[i]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.Random;
+
+// Run with: java MinimalPuzzleGeneratorTest (exits with an AssertionError on the first failure)
+public class MinimalPuzzleGeneratorTest {
+    private static final int N = SudokuRules.N;
+    private static final int CELLS = SudokuRules.CELLS;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        for (SudokuRules rules : new SudokuRules[]{SudokuRules.classic(), SudokuRules.diagonal(), SudokuRules.windoku()}) {
+            MinimalPuzzleGenerator generator = new MinimalPuzzleGenerator(rules, random);
+            for (int round = 0; round < 10; round++) {
+                int[][] solution = new int[N][N];
+                check(rules.solve(solution, random), "rules can produce a solution grid");
+
+                int[][] puzzle = generator.generate(solution, false);
+                checkCluesMatch(puzzle, solution);
+                check(isUnique(rules, puzzle, solution), "puzzle has a unique solution");
+                check(isMinimal(rules, puzzle, solution), "every remaining clue is needed");
+
+                int[][] symmetric = generator.generate(solution, true);
+                checkCluesMatch(symmetric, solution);
+                check(isUnique(rules, symmetric, solution), "symmetric puzzle has a unique solution");
+                for (int cell = 0; cell < CELLS; cell++) {
+                    int mirror = CELLS - 1 - cell;
+                    check((symmetric[cell / N][cell % N] == 0) == (symmetric[mirror / N][mirror % N] == 0),
+                            "symmetric puzzle mirrors its clues through the centre");
+                }
+            }
+        }
+
+        try {
+            new MinimalPuzzleGenerator(SudokuRules.killer(new int[][]{{0, 1}}, new int[]{3}), random);
+            throw new AssertionError("killer rules are rejected");
+        } catch (IllegalArgumentException expected) {
+            // Killer cages are not supported
+        }
+
+        System.out.println("MinimalPuzzleGeneratorTest passed");
+    }
+
+    private static void checkCluesMatch(int[][] puzzle, int[][] solution) {
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                check(puzzle[row][col] == 0 || puzzle[row][col] == solution[row][col], "clues come from the solution");
+            }
+        }
+    }
+
+    // Unique if no empty cell can take anything but its solution digit
+    private static boolean isUnique(SudokuRules rules, int[][] puzzle, int[][] solution) {
+        SudokuRules.Search search = load(rules, puzzle);
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (search.get(cell) == 0 && search.hasSolutionWithout(cell, solution[cell / N][cell % N])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Minimal if taking away any single clue lets that cell take another digit
+    private static boolean isMinimal(SudokuRules rules, int[][] puzzle, int[][] solution) {
+        SudokuRules.Search search = load(rules, puzzle);
+        for (int cell = 0; cell < CELLS; cell++) {
+            int clue = search.get(cell);
+            if (clue == 0) {
+                continue;
+            }
+            search.clear(cell);
+            boolean needed = search.hasSolutionWithout(cell, solution[cell / N][cell % N]);
+            search.place(cell, clue);
+            if (!needed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SudokuRules.Search load(SudokuRules rules, int[][] puzzle) {
+        SudokuRules.Search search = rules.newSearch();
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (puzzle[cell / N][cell % N] != 0) {
+                search.place(cell, puzzle[cell / N][cell % N]);
+            }
+        }
+        return search;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+// Checks completed grids against the puzzles they were submitted for, one at a time or in bulk.
+// Boards are flat arrays of 81 digits in row-major order; 0 marks an empty cell in a puzzle.
+public class SolutionVerifier {
+    public static final int BOARD_SIZE = SudokuRules.CELLS;
+    public static final int RECORD_SIZE = 2 * BOARD_SIZE; // puzzle followed by its solution
+
+    private static final int N = SudokuRules.N;
+    private static final int RECORDS_PER_CHUNK = 8192;
+
+    // Every unit flattened into one array so a check is a single linear walk
+    private final int[] unitCells;
+    private final int[] unitStarts;
+    private final int[] unitMasks;
+    private final int[][] cages;
+    private final int[] cageSums;
+
+    public SolutionVerifier() {
+        this(SudokuRules.classic());
+    }
+
+    public SolutionVerifier(SudokuRules rules) {
+        int[][] units = rules.getUnits();
+        int total = 0;
+        for (int[] unit : units) {
+            total += unit.length;
+        }
+        unitCells = new int[total];
+        unitStarts = new int[units.length + 1];
+        unitMasks = new int[units.length];
+        int k = 0;
+        for (int u = 0; u < units.length; u++) {
+            unitStarts[u] = k;
+            for (int cell : units[u]) {
+                unitCells[k++] = cell;
+            }
+            // A completed unit of n cells holds n distinct digits; a full unit holds all nine
+            unitMasks[u] = units[u].length == N ? SudokuRules.ALL_DIGITS : 0;
+        }
+        unitStarts[units.length] = k;
+
+        cages = new int[rules.getCageCount()][];
+        cageSums = new int[cages.length];
+        for (int c = 0; c < cages.length; c++) {
+            cages[c] = rules.getCage(c);
+            cageSums[c] = rules.getCageSum(c);
+        }
+    }
+
+    public boolean verify(int[][] puzzle, int[][] solution) {
+        byte[] p = new byte[BOARD_SIZE];
+        byte[] s = new byte[BOARD_SIZE];
+        for (int cell = 0; cell < BOARD_SIZE; cell++) {
+            int given = puzzle[cell / N][cell % N];
+            int num = solution[cell / N][cell % N];
+            // Check before narrowing, otherwise 257 would turn into 1
+            if (given < 0 || given > 9 || num < 1 || num > 9) {
+                return false;
+            }
+            p[cell] = (byte) given;
+            s[cell] = (byte) num;
+        }
+        return verify(p, 0, s, 0);
+    }
+
+    public boolean verify(byte[] puzzle, byte[] solution) {
+        return verify(puzzle, 0, solution, 0);
+    }
+
+    public boolean verify(byte[] puzzles, int puzzleOffset, byte[] solutions, int solutionOffset) {
+        // Every given clue must be kept as is, and every cell must hold 1..9. A shift only uses
+        // the low five bits of its count, so out-of-range values have to be caught here: for any
+        // v outside 1..9 one of (v - 1) and (9 - v) is negative and sets the sign bit of range.
+        int range = 0;
+        for (int cell = 0; cell < BOARD_SIZE; cell++) {
+            int given = puzzles[puzzleOffset + cell];
+            int num = solutions[solutionOffset + cell];
+            if (given != 0 && given != num) {
+                return false;
+            }
+            range |= (num - 1) | (9 - num);
+        }
+        if (range < 0) {
+            return false;
+        }
+
+        for (int u = 0; u < unitMasks.length; u++) {
+            int seen = 0;
+            int end = unitStarts[u + 1];
+            for (int i = unitStarts[u]; i < end; i++) {
+                seen |= 1 << solutions[solutionOffset + unitCells[i]];
+            }
+            int expected = unitMasks[u];
+            if (expected != 0) {
+                if (seen != expected) {
+                    return false;
+                }
+            } else if ((seen & ~SudokuRules.ALL_DIGITS) != 0 || Integer.bitCount(seen) != end - unitStarts[u]) {
+                return false;
+            }
+        }
+
+        for (int c = 0; c < cages.length; c++) {
+            int sum = 0;
+            for (int cell : cages[c]) {
+                sum += solutions[solutionOffset + cell];
+            }
+            if (sum != cageSums[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Puzzles and solutions are packed back to back, BOARD_SIZE bytes per board
+    public boolean[] verifyBatch(byte[] puzzles, byte[] solutions, boolean parallel) {
+        int count = puzzles.length / BOARD_SIZE;
+        if (puzzles.length != solutions.length || puzzles.length % BOARD_SIZE != 0) {
+            throw new IllegalArgumentException("Batches must hold the same whole number of boards");
+        }
+        boolean[] results = new boolean[count];
+        IntStream indices = IntStream.range(0, count);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> results[i] = verify(puzzles, i * BOARD_SIZE, solutions, i * BOARD_SIZE));
+        return results;
+    }
+
+    // Reads RECORD_SIZE-byte records until end of stream and reports the index of every rejected
+    // one, in order. Records are checked as soon as they have arrived in full rather than once a
+    // whole chunk is buffered. Returns the number of records read; a truncated final record is
+    // reported with an EOFException after every complete record before it has been checked.
+    public long verifyStream(InputStream in, boolean parallel, LongConsumer onRejected) throws IOException {
+        byte[] buffer = new byte[RECORDS_PER_CHUNK * RECORD_SIZE];
+        boolean[] results = new boolean[RECORDS_PER_CHUNK];
+        int filled = 0;
+        long total = 0;
+        while (true) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                if (filled != 0) {
+                    throw new EOFException("Truncated submission record after " + total + " records");
+                }
+                return total;
+            }
+            filled += read;
+            int count = filled / RECORD_SIZE;
+            if (count == 0) {
+                continue;
+            }
+
+            IntStream indices = IntStream.range(0, count);
+            if (parallel && count > 1) {
+                indices = indices.parallel();
+            }
+            indices.forEach(i -> results[i] = verify(buffer, i * RECORD_SIZE, buffer, i * RECORD_SIZE + BOARD_SIZE));
+            for (int i = 0; i < count; i++) {
+                if (!results[i]) {
+                    onRejected.accept(total + i);
+                }
+            }
+            total += count;
+
+            // Keep the start of a record that has not fully arrived yet
+            int used = count * RECORD_SIZE;
+            System.arraycopy(buffer, used, buffer, 0, filled - used);
+            filled -= used;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Run with: java SolutionVerifierTest (exits with an AssertionError on the first failure)
+public class SolutionVerifierTest {
+    private static final int N = SudokuRules.N;
+
+    public static void main(String[] args) {
+        int[][] solution = new int[N][N];
+        SudokuRules.classic().solve(solution);
+        int[][] puzzle = new int[N][N];
+        puzzle[0][0] = solution[0][0];
+        puzzle[4][4] = solution[4][4];
+
+        SolutionVerifier verifier = new SolutionVerifier();
+        check(verifier.verify(puzzle, solution), "correct grid is accepted");
+        check(verifier.verify(toBytes(puzzle), toBytes(solution)), "correct grid is accepted as bytes");
+
+        int[][] changedClue = copy(puzzle);
+        changedClue[0][0] = solution[0][0] % 9 + 1;
+        check(!verifier.verify(changedClue, solution), "grid that ignores a clue is rejected");
+
+        // Every value aliases or replaces a real digit if it slips past the range check
+        for (int value : new int[]{0, 10, 33, -31, 257}) {
+            int[][] forged = copy(solution);
+            for (int row = 0; row < N; row++) {
+                for (int col = 0; col < N; col++) {
+                    if (forged[row][col] == 1) {
+                        forged[row][col] = value;
+                    }
+                }
+            }
+            check(!verifier.verify(puzzle, forged), "every 1 replaced by " + value + " is rejected");
+            if (value != (byte) value) {
+                continue; // Does not fit in a byte board
+            }
+            byte[] forgedBytes = toBytes(solution);
+            for (int cell = 0; cell < forgedBytes.length; cell++) {
+                if (forgedBytes[cell] == 1) {
+                    forgedBytes[cell] = (byte) value;
+                }
+            }
+            check(!verifier.verify(toBytes(puzzle), forgedBytes), "every 1 replaced by byte " + value + " is rejected");
+        }
+
+        checkStream(verifier, toBytes(puzzle), toBytes(solution));
+
+        System.out.println("SolutionVerifierTest passed");
+    }
+
+    private static void checkStream(SolutionVerifier verifier, byte[] puzzle, byte[] solution) {
+        byte[] bad = solution.clone();
+        byte tmp = bad[0];
+        bad[0] = bad[1];
+        bad[1] = tmp;
+
+        // One good record, one bad one, then 10 bytes of a record that never finishes
+        byte[] data = new byte[2 * SolutionVerifier.RECORD_SIZE + 10];
+        System.arraycopy(puzzle, 0, data, 0, N * N);
+        System.arraycopy(solution, 0, data, N * N, N * N);
+        System.arraycopy(puzzle, 0, data, SolutionVerifier.RECORD_SIZE, N * N);
+        System.arraycopy(bad, 0, data, SolutionVerifier.RECORD_SIZE + N * N, N * N);
+
+        List<Long> rejected = new ArrayList<>();
+        try {
+            verifier.verifyStream(new ByteArrayInputStream(data), true, rejected::add);
+            throw new AssertionError("truncated stream raises EOFException");
+        } catch (EOFException expected) {
+            check(rejected.equals(Arrays.asList(1L)), "records before a truncated tail are still reported: " + rejected);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        // A stream that hands out a few bytes per read is checked record by record as they arrive
+        byte[] whole = Arrays.copyOf(data, 2 * SolutionVerifier.RECORD_SIZE);
+        List<Long> trickled = new ArrayList<>();
+        InputStream slow = new FilterInputStream(new ByteArrayInputStream(whole)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        try {
+            long count = verifier.verifyStream(slow, false, trickled::add);
+            check(count == 2 && trickled.equals(Arrays.asList(1L)), "trickled stream reports the bad record");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static byte[] toBytes(int[][] board) {
+        byte[] bytes = new byte[N * N];
+        for (int cell = 0; cell < bytes.length; cell++) {
+            bytes[cell] = (byte) board[cell / N][cell % N];
+        }
+        return bytes;
+    }
+
+    private static int[][] copy(int[][] board) {
+        int[][] copy = new int[N][];
+        for (int row = 0; row < N; row++) {
+            copy[row] = board[row].clone();
+        }
+        return copy;
+    }
+}
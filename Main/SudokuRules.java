@@ -0,0 +1,473 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class SudokuRules {
+    public static final int N = 9;
+    public static final int CELLS = N * N;
+
+    public static final int ALL_DIGITS = 0x3FE; // bits 1..9
+
+    private static final SudokuRules CLASSIC = new SudokuRules(false, false, new int[0][], new int[0]);
+
+    // Every unit is a list of cell indices (row * N + col) whose digits must all differ
+    private final int[][] units;
+    private final int[][] cages;
+    private final int[] cageSums;
+
+    // Lookup tables built once per rule set
+    private final int[][] peerRows;
+    private final int[][] peerCols;
+    private final int[][] cellUnits;
+    private final int[] cageOfCell;
+    private final int variantKey;
+
+    private SudokuRules(boolean diagonals, boolean windoku, int[][] cages, int[] cageSums) {
+        if (cages.length != cageSums.length) {
+            throw new IllegalArgumentException("Every cage needs exactly one sum");
+        }
+
+        List<int[]> unitList = new ArrayList<>();
+        for (int i = 0; i < N; i++) {
+            unitList.add(rowUnit(i));
+            unitList.add(columnUnit(i));
+            unitList.add(boxUnit((i / 3) * 3, (i % 3) * 3));
+        }
+        if (diagonals) {
+            int[] main = new int[N];
+            int[] anti = new int[N];
+            for (int i = 0; i < N; i++) {
+                main[i] = i * N + i;
+                anti[i] = i * N + (N - 1 - i);
+            }
+            unitList.add(main);
+            unitList.add(anti);
+        }
+        if (windoku) {
+            unitList.add(boxUnit(1, 1));
+            unitList.add(boxUnit(1, 5));
+            unitList.add(boxUnit(5, 1));
+            unitList.add(boxUnit(5, 5));
+        }
+
+        this.cages = new int[cages.length][];
+        this.cageSums = cageSums.clone();
+        this.cageOfCell = new int[CELLS];
+        Arrays.fill(cageOfCell, -1);
+        for (int c = 0; c < cages.length; c++) {
+            this.cages[c] = cages[c].clone();
+            int size = cages[c].length;
+            if (size < 1 || size > N) {
+                throw new IllegalArgumentException("Cage " + c + " must have 1 to " + N + " cells, not " + size);
+            }
+            // n distinct digits add up to at least 1 + ... + n and at most 9 + ... + (10 - n)
+            int minSum = size * (size + 1) / 2;
+            int maxSum = size * (2 * N + 1 - size) / 2;
+            if (cageSums[c] < minSum || cageSums[c] > maxSum) {
+                throw new IllegalArgumentException("Cage " + c + " of " + size + " cells cannot add up to "
+                        + cageSums[c] + " (must be " + minSum + " to " + maxSum + ")");
+            }
+            for (int cell : cages[c]) {
+                if (cell < 0 || cell >= CELLS) {
+                    throw new IllegalArgumentException("Cage cell out of range: " + cell);
+                }
+                if (cageOfCell[cell] != -1) {
+                    throw new IllegalArgumentException("Cell " + cell + " belongs to more than one cage");
+                }
+                cageOfCell[cell] = c;
+            }
+            // Digits inside a killer cage never repeat either
+            unitList.add(this.cages[c]);
+        }
+
+        this.units = unitList.toArray(new int[0][]);
+        this.variantKey = computeVariantKey(units, this.cageSums);
+
+        int[] unitCount = new int[CELLS];
+        for (int[] unit : units) {
+            for (int cell : unit) {
+                unitCount[cell]++;
+            }
+        }
+        this.cellUnits = new int[CELLS][];
+        for (int cell = 0; cell < CELLS; cell++) {
+            cellUnits[cell] = new int[unitCount[cell]];
+            unitCount[cell] = 0;
+        }
+        for (int u = 0; u < units.length; u++) {
+            for (int cell : units[u]) {
+                cellUnits[cell][unitCount[cell]++] = u;
+            }
+        }
+
+        // Peers are every other cell sharing at least one unit, stored as row/col pairs
+        boolean[][] isPeer = new boolean[CELLS][CELLS];
+        for (int[] unit : units) {
+            for (int a : unit) {
+                for (int b : unit) {
+                    if (a != b) {
+                        isPeer[a][b] = true;
+                    }
+                }
+            }
+        }
+        this.peerRows = new int[CELLS][];
+        this.peerCols = new int[CELLS][];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (isPeer[cell][other]) {
+                    count++;
+                }
+            }
+            peerRows[cell] = new int[count];
+            peerCols[cell] = new int[count];
+            int k = 0;
+            for (int other = 0; other < CELLS; other++) {
+                if (isPeer[cell][other]) {
+                    peerRows[cell][k] = other / N;
+                    peerCols[cell][k] = other % N;
+                    k++;
+                }
+            }
+        }
+    }
+
+    public static SudokuRules classic() {
+        return CLASSIC;
+    }
+
+    public static SudokuRules diagonal() {
+        return new SudokuRules(true, false, new int[0][], new int[0]);
+    }
+
+    public static SudokuRules windoku() {
+        return new SudokuRules(false, true, new int[0][], new int[0]);
+    }
+
+    public static SudokuRules killer(int[][] cages, int[] cageSums) {
+        return new SudokuRules(false, false, cages, cageSums);
+    }
+
+    public static SudokuRules variant(boolean diagonals, boolean windoku, int[][] cages, int[] cageSums) {
+        if (!diagonals && !windoku && cages.length == 0) {
+            return CLASSIC;
+        }
+        return new SudokuRules(diagonals, windoku, cages, cageSums);
+    }
+
+    public boolean isClassic() {
+        return this == CLASSIC;
+    }
+
+    // Stable id of the rule set, 0 for classic, so results can be kept apart per variant
+    public int getVariantKey() {
+        return variantKey;
+    }
+
+    // Copies, since the classic rule set is shared by every caller
+    public int[][] getUnits() {
+        int[][] copy = new int[units.length][];
+        for (int u = 0; u < units.length; u++) {
+            copy[u] = units[u].clone();
+        }
+        return copy;
+    }
+
+    public int getUnitCount() {
+        return units.length;
+    }
+
+    // Indices into getUnits() of every unit the cell belongs to
+    public int[] getCellUnits(int cell) {
+        return cellUnits[cell].clone();
+    }
+
+    public int getCageCount() {
+        return cages.length;
+    }
+
+    public int[] getCage(int cage) {
+        return cages[cage].clone();
+    }
+
+    public int getCageSum(int cage) {
+        return cageSums[cage];
+    }
+
+    // True if num can go into an empty cell without clashing with any peer or cage sum
+    public boolean isSafe(int[][] grid, int row, int col, int num) {
+        int cell = row * N + col;
+        int[] rows = peerRows[cell];
+        int[] cols = peerCols[cell];
+        for (int i = 0; i < rows.length; i++) {
+            if (grid[rows[i]][cols[i]] == num) {
+                return false;
+            }
+        }
+        return cageOfCell[cell] == -1 || fitsCage(grid, cell, num);
+    }
+
+    // Peers never include the cell itself, so its current value is ignored just like isSafe
+    public boolean isValidNumber(int[][] board, int row, int col, int num) {
+        return isSafe(board, row, col, num);
+    }
+
+    public boolean isBoardCorrect(int[][] board) {
+        for (int[] unit : units) {
+            int seen = 0;
+            for (int cell : unit) {
+                int num = board[cell / N][cell % N];
+                if (num < 0 || num > 9) {
+                    return false;
+                }
+                if (num != 0) {
+                    int bit = 1 << num;
+                    if ((seen & bit) != 0) {
+                        return false;
+                    }
+                    seen |= bit;
+                }
+            }
+        }
+        for (int c = 0; c < cages.length; c++) {
+            int sum = 0;
+            boolean complete = true;
+            for (int cell : cages[c]) {
+                int num = board[cell / N][cell % N];
+                if (num == 0) {
+                    complete = false;
+                }
+                sum += num;
+            }
+            // Same rule as fitsCage: an unfinished cage must still leave room for its empty cells
+            if (complete ? sum != cageSums[c] : sum >= cageSums[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean solve(int[][] grid) {
+        return solve(grid, null);
+    }
+
+    // With a Random, candidates are tried in shuffled order so an empty grid gives a different
+    // solution every time. The grid is only written to when a solution is found.
+    public boolean solve(int[][] grid, Random random) {
+        Search search = newSearch();
+        for (int cell = 0; cell < CELLS; cell++) {
+            int num = grid[cell / N][cell % N];
+            if (num == 0) {
+                continue;
+            }
+            if (num < 1 || num > 9 || !search.canPlace(cell, num)) {
+                return false;
+            }
+            search.place(cell, num);
+        }
+
+        if (!search.solve(random)) {
+            return false;
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            grid[cell / N][cell % N] = search.get(cell);
+        }
+        return true;
+    }
+
+    public Search newSearch() {
+        return new Search();
+    }
+
+    // A flat board plus per-unit used-digit bitmasks and per-cage running sums, kept up to date
+    // by place and clear so that searches can be run on it again and again without rebuilding
+    public final class Search {
+        private final int[] board = new int[CELLS];
+        private final int[] used = new int[units.length];
+        private final int[] cageRemaining = cageSums.clone();
+        private final int[] cageEmpty = new int[cages.length];
+
+        private Search() {
+            for (int c = 0; c < cages.length; c++) {
+                cageEmpty[c] = cages[c].length;
+            }
+        }
+
+        public int get(int cell) {
+            return board[cell];
+        }
+
+        public boolean canPlace(int cell, int num) {
+            return (candidates(cell) & (1 << num)) != 0;
+        }
+
+        public void place(int cell, int num) {
+            board[cell] = num;
+            for (int unit : cellUnits[cell]) {
+                used[unit] |= 1 << num;
+            }
+            int c = cageOfCell[cell];
+            if (c != -1) {
+                cageRemaining[c] -= num;
+                cageEmpty[c]--;
+            }
+        }
+
+        public void clear(int cell) {
+            int num = board[cell];
+            board[cell] = 0;
+            for (int unit : cellUnits[cell]) {
+                used[unit] &= ~(1 << num);
+            }
+            int c = cageOfCell[cell];
+            if (c != -1) {
+                cageRemaining[c] += num;
+                cageEmpty[c]++;
+            }
+        }
+
+        // Fills every empty cell and keeps the result if a solution exists
+        public boolean solve(Random random) {
+            return search(-1, 0, random, true);
+        }
+
+        // True if the board can be completed with something other than num in cell.
+        // The board is left exactly as it was.
+        public boolean hasSolutionWithout(int cell, int num) {
+            return search(cell, 1 << num, null, false);
+        }
+
+        // Depth-first search, branching on the cell with fewest candidates
+        private boolean search(int forbiddenCell, int forbiddenMask, Random random, boolean keep) {
+            int bestCell = -1;
+            int bestMask = 0;
+            int bestCount = 10;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (board[cell] != 0) {
+                    continue;
+                }
+                int mask = candidates(cell);
+                if (cell == forbiddenCell) {
+                    mask &= ~forbiddenMask;
+                }
+                int count = Integer.bitCount(mask);
+                if (count < bestCount) {
+                    bestCell = cell;
+                    bestMask = mask;
+                    bestCount = count;
+                    if (count <= 1) {
+                        break;
+                    }
+                }
+            }
+
+            // No empty space left
+            if (bestCell == -1) {
+                return true;
+            }
+
+            while (bestMask != 0) {
+                int rest = bestMask;
+                if (random != null) {
+                    for (int skip = random.nextInt(Integer.bitCount(bestMask)); skip > 0; skip--) {
+                        rest &= rest - 1;
+                    }
+                }
+                int bit = rest & -rest;
+                bestMask &= ~bit;
+                place(bestCell, Integer.numberOfTrailingZeros(bit));
+                boolean solved = search(forbiddenCell, forbiddenMask, random, keep);
+                if (solved && keep) {
+                    return true;
+                }
+                clear(bestCell); // Backtrack
+                if (solved) {
+                    return true;
+                }
+            }
+
+            return false; // Triggers backtracking
+        }
+
+        private int candidates(int cell) {
+            int taken = 0;
+            for (int unit : cellUnits[cell]) {
+                taken |= used[unit];
+            }
+            int mask = ~taken & ALL_DIGITS;
+            int c = cageOfCell[cell];
+            if (c != -1) {
+                // Whatever this cell takes, the other empty cells of the cage must still be able to
+                // make up the rest with distinct digits
+                int others = cageEmpty[c] - 1;
+                int low = Math.max(1, cageRemaining[c] - others * (2 * N + 1 - others) / 2);
+                int high = Math.min(9, cageRemaining[c] - others * (others + 1) / 2);
+                mask &= low > high ? 0 : ((1 << (high + 1)) - 1) & ~((1 << low) - 1);
+            }
+            return mask;
+        }
+    }
+
+    private boolean fitsCage(int[][] grid, int cell, int num) {
+        int c = cageOfCell[cell];
+        int sum = num;
+        boolean complete = true;
+        for (int other : cages[c]) {
+            if (other != cell) {
+                int value = grid[other / N][other % N];
+                if (value == 0) {
+                    complete = false;
+                }
+                sum += value;
+            }
+        }
+        return complete ? sum == cageSums[c] : sum < cageSums[c];
+    }
+
+    // FNV-1a over every unit beyond the 27 classic ones and every cage sum
+    private static int computeVariantKey(int[][] units, int[] cageSums) {
+        if (units.length == 3 * N) {
+            return 0;
+        }
+        int hash = 0x811c9dc5;
+        for (int u = 3 * N; u < units.length; u++) {
+            for (int cell : units[u]) {
+                hash = (hash ^ cell) * 0x01000193;
+            }
+            hash = (hash ^ 0xFF) * 0x01000193; // Unit separator
+        }
+        for (int sum : cageSums) {
+            hash = (hash ^ sum) * 0x01000193;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int[] rowUnit(int row) {
+        int[] unit = new int[N];
+        for (int col = 0; col < N; col++) {
+            unit[col] = row * N + col;
+        }
+        return unit;
+    }
+
+    private static int[] columnUnit(int col) {
+        int[] unit = new int[N];
+        for (int row = 0; row < N; row++) {
+            unit[row] = row * N + col;
+        }
+        return unit;
+    }
+
+    private static int[] boxUnit(int startRow, int startCol) {
+        int[] unit = new int[N];
+        int k = 0;
+        for (int row = startRow; row < startRow + 3; row++) {
+            for (int col = startCol; col < startCol + 3; col++) {
+                unit[k++] = row * N + col;
+            }
+        }
+        return unit;
+    }
+}
@@ -3,12 +3,16 @@ import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
 public class SudokuSolver extends JFrame {
     private static final int N = 9;
+    private static final int EXPERT_ATTEMPTS = 8;
+    private static final long EXPERT_BUDGET_MS = 300;
     private JTextField[][] cells = new JTextField[N][N];
     private JButton startButton;
     private JButton submitButton;
@@ -23,11 +27,24 @@ public class SudokuSolver extends JFrame {
     private boolean timerRunning = false;
     private Random random = new Random();
     private int vacantCells;
+    private boolean minimalPuzzle;
+    private Leaderboard.Difficulty difficulty;
+    private boolean solutionShown; // A revealed solution must never reach the leaderboard
     private int score;
     private JLabel scoreLabel;
+    private final SudokuRules rules;
+    private final SolutionVerifier verifier;
+    private final Leaderboard leaderboard;
 
 
     public SudokuSolver() {
+        this(SudokuRules.classic());
+    }
+
+    public SudokuSolver(SudokuRules rules) {
+        this.rules = rules;
+        this.verifier = new SolutionVerifier(rules);
+        this.leaderboard = openLeaderboard();
         setTitle("Sudoku");
         setSize(700, 700);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -161,17 +178,26 @@ public class SudokuSolver extends JFrame {
         resetBoard();
         score = 0; // Reset score
         scoreLabel.setText("Score: " + score);
+        solutionShown = false; // Retrying the same puzzle keeps it set, since the answer has been seen
 
         initialBoard = new int[N][N];
-        fillDiagonal(initialBoard);
-        solveSudoku(initialBoard);
+        if (rules.isClassic()) {
+            fillDiagonal(initialBoard); // The three diagonal boxes are independent only under classic rules
+            solveSudoku(initialBoard);
+        } else {
+            rules.solve(initialBoard, random);
+        }
 
         currentPuzzle = new int[N][N];
         for (int i = 0; i < N; i++) {
             System.arraycopy(initialBoard[i], 0, currentPuzzle[i], 0, N);
         }
 
-        removeNumbers(currentPuzzle);
+        if (minimalPuzzle) {
+            currentPuzzle = generateExpertPuzzle();
+        } else {
+            removeNumbers(currentPuzzle);
+        }
         updateUIFromBoard(currentPuzzle);
 
         startTimer();
@@ -299,8 +325,11 @@ public class SudokuSolver extends JFrame {
             }
         }
 
-        if (isBoardCorrect(userBoard)) {
+        if (verifier.verify(currentPuzzle, userBoard)) {
             timer.cancel();
+            if (!solutionShown) {
+                recordResult();
+            }
             displayEndGameOptions(true);
         } else {
             displayEndGameOptions(false);
@@ -312,7 +341,13 @@ public class SudokuSolver extends JFrame {
         String message;
         if (isCorrect) {
             options = new Object[]{"New Game", "Quit"};
-            message = "Congrats! You solved the puzzle.\nScore: " + score;
+            message = "Congrats! You solved the puzzle.\nScore: " + score + "\nTime: " + secondsElapsed + "s";
+            Leaderboard.Result[] best = leaderboard.bestForDifficulty(rules.getVariantKey(), difficulty);
+            if (solutionShown) {
+                message += "\nThe solution was shown, so this result is not recorded.";
+            } else if (best.length > 0) {
+                message += "\nBest " + difficulty.name().toLowerCase() + " time: " + best[0].getSeconds() + "s";
+            }
         } else {
             options = new Object[]{"Retry", "Quit"};
             message = "The solution is incorrect. Please try again.\nScore: " + score;
@@ -384,61 +419,6 @@ public class SudokuSolver extends JFrame {
         }
     }
 
-    private boolean isBoardCorrect(int[][] board) {
-        for (int i = 0; i < N; i++) {
-            if (!isValidRow(board, i) || !isValidColumn(board, i) || !isValidSubBox(board, i)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private boolean isValidRow(int[][] board, int row) {
-        boolean[] seen = new boolean[10];
-        for (int col = 0; col < N; col++) {
-            int num = board[row][col];
-            if (num != 0) {
-                if (seen[num]) {
-                    return false;
-                }
-                seen[num] = true;
-            }
-        }
-        return true;
-    }
-
-    private boolean isValidColumn(int[][] board, int col) {
-        boolean[] seen = new boolean[10];
-        for (int row = 0; row < N; row++) {
-            int num = board[row][col];
-            if (num != 0) {
-                if (seen[num]) {
-                    return false;
-                }
-                seen[num] = true;
-            }
-        }
-        return true;
-    }
-
-    private boolean isValidSubBox(int[][] board, int box) {
-        int startRow = (box / 3) * 3;
-        int startCol = (box % 3) * 3;
-        boolean[] seen = new boolean[10];
-        for (int row = startRow; row < startRow + 3; row++) {
-            for (int col = startCol; col < startCol + 3; col++) {
-                int num = board[row][col];
-                if (num != 0) {
-                    if (seen[num]) {
-                        return false;
-                    }
-                    seen[num] = true;
-                }
-            }
-        }
-        return true;
-    }
-
     private void updateUIFromBoard(int[][] board) {
         for (int row = 0; row < N; row++) {
             for (int col = 0; col < N; col++) {
@@ -454,67 +434,11 @@ public class SudokuSolver extends JFrame {
     }
 
     private boolean isSafe(int[][] grid, int row, int col, int num) {
-        // Check the row
-        for (int x = 0; x < N; x++) {
-            if (grid[row][x] == num) {
-                return false;
-            }
-        }
-
-        // Check the column
-        for (int x = 0; x < N; x++) {
-            if (grid[x][col] == num) {
-                return false;
-            }
-        }
-
-        // Check the 3x3 subgrid
-        int startRow = row - row % 3;
-        int startCol = col - col % 3;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (grid[i + startRow][j + startCol] == num) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return rules.isSafe(grid, row, col, num);
     }
 
     private boolean solveSudoku(int[][] grid) {
-        int row = -1, col = -1;
-        boolean isEmpty = true;
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                if (grid[i][j] == 0) {
-                    row = i;
-                    col = j;
-                    isEmpty = false;
-                    break;
-                }
-            }
-            if (!isEmpty) {
-                break;
-            }
-        }
-
-        // No empty space left
-        if (isEmpty) {
-            return true;
-        }
-
-        for (int num = 1; num <= 9; num++) {
-            if (isSafe(grid, row, col, num)) {
-                grid[row][col] = num;
-                if (solveSudoku(grid)) {
-                    return true;
-                }
-                grid[row][col] = 0; // Backtrack
-            }
-        }
-
-        return false; // Triggers backtracking
+        return rules.solve(grid);
     }
 
     private void fillDiagonal(int[][] grid) {
@@ -531,6 +455,31 @@ public class SudokuSolver extends JFrame {
         }
     }
 
+    // Minimal puzzles vary by a few clues with the removal order, so keep the sparsest of a few.
+    // Variant rules search more slowly, so extra attempts stop once the time budget is spent.
+    private int[][] generateExpertPuzzle() {
+        MinimalPuzzleGenerator generator = new MinimalPuzzleGenerator(rules, random);
+        long deadline = System.currentTimeMillis() + EXPERT_BUDGET_MS;
+        int[][] best = null;
+        int bestClues = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < EXPERT_ATTEMPTS && (best == null || System.currentTimeMillis() < deadline); attempt++) {
+            int[][] puzzle = generator.generate(initialBoard, false);
+            int clues = 0;
+            for (int row = 0; row < N; row++) {
+                for (int col = 0; col < N; col++) {
+                    if (puzzle[row][col] != 0) {
+                        clues++;
+                    }
+                }
+            }
+            if (clues < bestClues) {
+                best = puzzle;
+                bestClues = clues;
+            }
+        }
+        return best;
+    }
+
     private void removeNumbers(int[][] board) {
         int cellsToRemove = vacantCells;
         while (cellsToRemove > 0) {
@@ -552,6 +501,7 @@ public class SudokuSolver extends JFrame {
 
         solveSudoku(solution);
         updateUIFromBoard(solution);
+        solutionShown = true;
     }
 
     public static int getRandomNumber(int min, int max) {
@@ -564,7 +514,10 @@ public class SudokuSolver extends JFrame {
 
 
     private void selectDifficultyLevel() {
-        Object[] options = {"Easy", "Medium", "Hard"};
+        // The minimal generator cannot handle killer cage sums, so those rule sets stop at Hard
+        Object[] options = rules.getCageCount() > 0
+                ? new Object[]{"Easy", "Medium", "Hard"}
+                : new Object[]{"Easy", "Medium", "Hard", "Expert"};
         int choice = JOptionPane.showOptionDialog(
                 this,
                 "Select Difficulty Level",
@@ -576,12 +529,19 @@ public class SudokuSolver extends JFrame {
                 options[0]
         );
 
+        minimalPuzzle = false;
         if (choice == 0) { // Easy
             vacantCells = getRandomNumber(10, 17);
+            difficulty = Leaderboard.Difficulty.EASY;
         } else if (choice == 1) { // Medium
             vacantCells = getRandomNumber(30, 40);
+            difficulty = Leaderboard.Difficulty.MEDIUM;
         } else if (choice == 2) { // Hard
             vacantCells = getRandomNumber(55, 60);
+            difficulty = Leaderboard.Difficulty.HARD;
+        } else if (choice == 3) { // Expert: remove clues until every one left is needed
+            minimalPuzzle = true;
+            difficulty = Leaderboard.Difficulty.EXPERT;
         } else {
             return;
         }
@@ -663,38 +623,41 @@ public class SudokuSolver extends JFrame {
 
     }
     
+    private Leaderboard openLeaderboard() {
+        try {
+            Leaderboard opened = Leaderboard.open(Paths.get(System.getProperty("user.home"), ".sudoku-leaderboard"));
+            if (opened.getCorruptRecordCount() > 0) {
+                JOptionPane.showMessageDialog(null,
+                        opened.getCorruptRecordCount() + " damaged leaderboard entries were skipped.",
+                        "Leaderboard", JOptionPane.WARNING_MESSAGE);
+            }
+            return opened;
+        } catch (IOException e) {
+            // Keep playing without history rather than refusing to start, but say so
+            JOptionPane.showMessageDialog(null,
+                    "Could not open the leaderboard file: " + e.getMessage()
+                            + "\nResults from this session will not be saved.",
+                    "Leaderboard", JOptionPane.WARNING_MESSAGE);
+            return new Leaderboard();
+        }
+    }
+
+    private void recordResult() {
+        try {
+            int variant = rules.getVariantKey();
+            leaderboard.post(variant, Leaderboard.puzzleKey(variant, currentPuzzle), difficulty, secondsElapsed, score);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not save your result: " + e.getMessage(), "Leaderboard", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
     private void updateScore(int points) {
         score += points;
         scoreLabel.setText("Score: " + score);
     }
 
     private boolean isValidNumber(int[][] board, int row, int col, int num) {
-        // Check if the number is already in the row
-        for (int c = 0; c < N; c++) {
-            if (board[row][c] == num && c != col) {
-                return false;
-            }
-        }
-
-        // Check if the number is already in the column
-        for (int r = 0; r < N; r++) {
-            if (board[r][col] == num && r != row) {
-                return false;
-            }
-        }
-
-        // Check if the number is already in the 3x3 sub-box
-        int startRow = row - row % 3;
-        int startCol = col - col % 3;
-        for (int r = startRow; r < startRow + 3; r++) {
-            for (int c = startCol; c < startCol + 3; c++) {
-                if (board[r][c] == num && (r != row || c != col)) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return rules.isValidNumber(board, row, col, num);
     }
     
     private void showInitialDialog() {